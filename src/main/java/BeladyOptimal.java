@@ -0,0 +1,125 @@
+import java.util.Arrays;
+
+/**
+ * Offline optimal replacement (Belady's MIN) for a recorded access trace.
+ * It evicts the entry whose next use is furthest in the future, so its hit
+ * count is an upper bound for every online policy in {@link CacheReplacementPolicy}
+ * running with the same capacity on the same trace.
+ */
+public final class BeladyOptimal {
+    // next use of a key that is never accessed again
+    static final int NEVER = Integer.MAX_VALUE;
+
+    private BeladyOptimal() {
+    }
+
+    /**
+     * Replay the trace against an optimal cache of the given capacity.
+     *
+     * @param trace the keys in access order
+     * @param capacity the maximum number of entries held at once
+     * @return the number of accesses that were hits
+     */
+    public static int simulate(int[] trace, int capacity) {
+        if (trace == null) {
+            throw new NullPointerException("Trace cannot be null.");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        int[] sorted = trace.clone();
+        Arrays.sort(sorted);
+        int distinct = unique(sorted);
+        int[] ids = new int[trace.length];
+        for (int i = 0; i < trace.length; i++) {
+            ids[i] = Arrays.binarySearch(sorted, 0, distinct, trace[i]);
+        }
+        int[] next = nextUse(ids, distinct);
+
+        // max-heap of resident ids keyed by their next use, with the
+        // position of each id kept so a hit can re-key it in place
+        int[] heap = new int[Math.min(capacity, distinct)];
+        int[] position = new int[distinct];
+        int[] key = new int[distinct];
+        Arrays.fill(position, -1);
+        int size = 0;
+        int hits = 0;
+
+        for (int i = 0; i < ids.length; i++) {
+            int id = ids[i];
+            key[id] = next[i];
+            if (position[id] >= 0) {
+                hits++;
+                // next use only moves forward, so the key can only grow
+                siftUp(heap, position, key, position[id]);
+            } else if (size < heap.length) {
+                heap[size] = id;
+                position[id] = size;
+                siftUp(heap, position, key, size++);
+            } else {
+                position[heap[0]] = -1; // evict the furthest next use
+                heap[0] = id;
+                position[id] = 0;
+                siftDown(heap, position, key, size, 0);
+            }
+        }
+        return hits;
+    }
+
+    // one backward pass: next[i] is the next index accessing ids[i], or NEVER
+    static int[] nextUse(int[] ids, int distinct) {
+        int[] next = new int[ids.length];
+        int[] last = new int[distinct];
+        Arrays.fill(last, NEVER);
+        for (int i = ids.length - 1; i >= 0; i--) {
+            next[i] = last[ids[i]];
+            last[ids[i]] = i;
+        }
+        return next;
+    }
+
+    // collapse a sorted array to its distinct values, returning their count
+    private static int unique(int[] sorted) {
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count;
+    }
+
+    private static void siftUp(int[] heap, int[] position, int[] key, int index) {
+        int id = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (key[heap[parent]] >= key[id]) {
+                break;
+            }
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    private static void siftDown(int[] heap, int[] position, int[] key, int size, int index) {
+        int id = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && key[heap[child + 1]] > key[heap[child]]) {
+                child++;
+            }
+            if (key[id] >= key[heap[child]]) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+}
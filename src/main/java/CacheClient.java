@@ -0,0 +1,228 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Cache} backed by a {@link CacheServer} over one TCP connection.
+ * Calls are serialized on the connection; use one client per thread for
+ * concurrency. I/O failures are thrown as {@link UncheckedIOException}
+ * and errors reported by the server as {@link IllegalStateException}.
+ */
+public class CacheClient<K, V> implements Cache<K, V>, Closeable {
+    // request bytes getPipelined sends before reading their replies; small
+    // enough to sit in socket buffers while the server holds back on reading
+    static final int PIPELINE_BYTES = 16 * 1024;
+
+    private final SocketChannel channel;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private ByteBuffer out = ByteBuffer.allocateDirect(CacheProtocol.BUFFER_SIZE);
+    // kept in read mode, may hold the start of the next reply
+    private ByteBuffer in = ByteBuffer.allocateDirect(CacheProtocol.BUFFER_SIZE).flip();
+
+    public CacheClient(InetSocketAddress address, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+        if (keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException("Codecs cannot be null");
+        }
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.channel = SocketChannel.open(address);
+        this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    public synchronized V get(K key) {
+        requireKey(key);
+        try {
+            writeGet(key);
+            send();
+            return readValueReply();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void put(K key, V value) {
+        requireKey(key);
+        try {
+            out = CacheProtocol.ensureRemaining(out, Integer.BYTES + 1);
+            int start = CacheProtocol.beginFrame(out);
+            out.put(CacheProtocol.OP_PUT);
+            out = CacheProtocol.putValue(out, keyCodec, key);
+            out = CacheProtocol.putValue(out, valueCodec, value);
+            CacheProtocol.endFrame(out, start);
+            send();
+            consumed(readReply());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Get the values for several keys in a single MGET request.
+     *
+     * @param keys the keys
+     * @return the values in key order, null for keys not in the cache
+     */
+    public synchronized List<V> getAll(List<K> keys) {
+        keys.forEach(CacheClient::requireKey);
+        try {
+            out = CacheProtocol.ensureRemaining(out, Integer.BYTES * 2 + 1);
+            int start = CacheProtocol.beginFrame(out);
+            out.put(CacheProtocol.OP_MGET);
+            out.putInt(keys.size());
+            for (K key : keys) {
+                out = CacheProtocol.putValue(out, keyCodec, key);
+            }
+            CacheProtocol.endFrame(out, start);
+            send();
+            int end = readReply();
+            try {
+                int count = in.getInt();
+                List<V> values = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    values.add(CacheProtocol.getValue(in, valueCodec));
+                }
+                return values;
+            } finally {
+                consumed(end);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Send GETs without waiting for each reply, so a batch costs one round
+     * trip per {@link #PIPELINE_BYTES} of requests instead of one per key.
+     * Replies are read after each chunk, which keeps a large batch from
+     * filling both directions of the connection and stalling.
+     *
+     * @param keys the keys
+     * @return the values in key order, null for keys not in the cache
+     */
+    public synchronized List<V> getPipelined(List<K> keys) {
+        keys.forEach(CacheClient::requireKey);
+        try {
+            List<V> values = new ArrayList<>(keys.size());
+            RuntimeException failure = null;
+            int sent = 0;
+            while (sent < keys.size()) {
+                int chunk = 0;
+                while (sent + chunk < keys.size() && out.position() < PIPELINE_BYTES) {
+                    writeGet(keys.get(sent + chunk++));
+                }
+                send();
+                sent += chunk;
+                for (int i = 0; i < chunk; i++) {
+                    try {
+                        values.add(readValueReply());
+                    } catch (RuntimeException e) {
+                        // a server error or an undecodable value; keep draining
+                        // so the next call starts at a reply boundary
+                        failure = failure == null ? e : failure;
+                        values.add(null);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return values;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private static void requireKey(Object key) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null.");
+        }
+    }
+
+    private void writeGet(K key) {
+        out = CacheProtocol.ensureRemaining(out, Integer.BYTES + 1);
+        int start = CacheProtocol.beginFrame(out);
+        out.put(CacheProtocol.OP_GET);
+        out = CacheProtocol.putValue(out, keyCodec, key);
+        CacheProtocol.endFrame(out, start);
+    }
+
+    private void send() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+        out = CacheProtocol.shrink(out);
+    }
+
+    /**
+     * Buffer the next reply and leave the position just after its status
+     * byte. Returns where the reply ends; callers must hand that to
+     * {@link #consumed} even if decoding the body fails.
+     */
+    private int readReply() throws IOException {
+        fill(Integer.BYTES);
+        int length = in.getInt();
+        if (length <= 0 || length > CacheProtocol.MAX_FRAME) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        fill(length);
+        int end = in.position() + length;
+        if (in.get() == CacheProtocol.STATUS_ERROR) {
+            String message;
+            try {
+                message = CacheProtocol.getValue(in, Codec.STRING);
+            } finally {
+                consumed(end);
+            }
+            throw new IllegalStateException("Server error: " + message);
+        }
+        return end;
+    }
+
+    private V readValueReply() throws IOException {
+        int end = readReply();
+        try {
+            return CacheProtocol.getValue(in, valueCodec);
+        } finally {
+            consumed(end);
+        }
+    }
+
+    // skip to the end of a reply and drop a read buffer that grew for it
+    private void consumed(int end) {
+        in.position(end);
+        if (in.capacity() > CacheProtocol.BUFFER_SIZE && in.remaining() <= CacheProtocol.BUFFER_SIZE) {
+            in.compact();
+            in = CacheProtocol.shrink(in);
+            in.flip();
+        }
+    }
+
+    private void fill(int bytes) throws IOException {
+        if (in.remaining() >= bytes) {
+            return;
+        }
+        in.compact();
+        in = CacheProtocol.ensureRemaining(in, bytes - in.position());
+        while (in.position() < bytes) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+        }
+        in.flip();
+    }
+}
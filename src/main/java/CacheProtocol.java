@@ -0,0 +1,103 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Wire format shared by {@link CacheServer} and {@link CacheClient}.
+ *
+ * Every frame is an int length followed by that many bytes. A request
+ * starts with an opcode byte, a response with a status byte. Keys and
+ * values are an int length followed by the encoded bytes, with a length
+ * of -1 for a null value or a miss.
+ *
+ * <pre>
+ * GET  request: key                 response: value
+ * PUT  request: key, value          response: (empty)
+ * MGET request: count, key * count  response: count, value * count
+ * </pre>
+ *
+ * Responses come back in request order, so a client may send many frames
+ * before reading any reply.
+ */
+final class CacheProtocol {
+    static final byte OP_GET = 1;
+    static final byte OP_PUT = 2;
+    static final byte OP_MGET = 3;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    static final int NULL_LENGTH = -1;
+    static final int MAX_FRAME = 16 * 1024 * 1024;
+    static final int BUFFER_SIZE = 64 * 1024;
+    // stop reading requests while this many reply bytes are still unsent
+    static final int HIGH_WATER = 4 * BUFFER_SIZE;
+
+    private CacheProtocol() {
+    }
+
+    /**
+     * Make room for the given number of bytes in a buffer that is being
+     * written to, replacing it with a larger direct buffer if needed.
+     */
+    static ByteBuffer ensureRemaining(ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return buffer;
+        }
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < bytes) {
+            capacity *= 2;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    /**
+     * Swap a buffer that grew for one large frame back to the default
+     * size once what it holds fits again. The buffer is being written to.
+     */
+    static ByteBuffer shrink(ByteBuffer buffer) {
+        if (buffer.capacity() <= BUFFER_SIZE || buffer.position() > BUFFER_SIZE) {
+            return buffer;
+        }
+        ByteBuffer smaller = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.flip();
+        smaller.put(buffer);
+        return smaller;
+    }
+
+    static <T> ByteBuffer putValue(ByteBuffer buffer, Codec<T> codec, T value) {
+        if (value == null) {
+            buffer = ensureRemaining(buffer, Integer.BYTES);
+            buffer.putInt(NULL_LENGTH);
+            return buffer;
+        }
+        byte[] bytes = codec.encode(value);
+        buffer = ensureRemaining(buffer, Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+
+    static <T> T getValue(ByteBuffer buffer, Codec<T> codec) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed length: " + length);
+        }
+        return codec.decode(buffer, length);
+    }
+
+    // reserve the length field of a frame and return its position
+    static int beginFrame(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        return start;
+    }
+
+    static void endFrame(ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start - Integer.BYTES);
+    }
+}
@@ -0,0 +1,301 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Serves a {@link Cache} over TCP using the binary protocol in
+ * {@link CacheProtocol}. A single selector thread owns the cache, so
+ * caches that are not thread safe (like {@link Memory}) can be served
+ * as they are. Requests are parsed straight out of each connection's
+ * direct read buffer and replies are encoded straight into its direct
+ * write buffer; all complete frames in a read are answered with one write.
+ * A connection whose unsent replies pass {@link CacheProtocol#HIGH_WATER}
+ * is not read from until they drain, and one whose reply would exceed
+ * {@link CacheProtocol#MAX_FRAME} is closed.
+ */
+public class CacheServer<K, V> implements Closeable {
+    private final Cache<K, V> cache;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread loop;
+    private volatile boolean running;
+    private volatile Exception failure;
+
+    public CacheServer(Cache<K, V> cache, Codec<K> keyCodec, Codec<V> valueCodec) {
+        if (cache == null) {
+            throw new IllegalArgumentException("Cache cannot be null");
+        }
+        if (keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException("Codecs cannot be null");
+        }
+        this.cache = cache;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * Bind to the address and start serving on a background thread.
+     *
+     * @param address the address to listen on, port 0 for any free port
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (loop != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        loop = new Thread(this::run, "cache-server");
+        loop.setDaemon(true);
+        loop.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Stop serving and close every connection. Throws if the server had
+     * already stopped because its selector loop failed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (loop == null) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IOException("Cache server stopped unexpectedly", failure);
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        if (key.isReadable()) {
+                            read(key);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(key);
+                        }
+                    } catch (IOException e) {
+                        // a broken or misbehaving client only loses its own connection
+                        closeQuietly(key);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // keep the cause for close(), and say so now for servers nobody closes
+            failure = e;
+            running = false;
+            System.err.println("Cache server stopped: " + e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+                // shutting down anyway
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        if (channel.read(connection.in) < 0) {
+            closeQuietly(key);
+            return;
+        }
+        process(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        boolean paused = (key.interestOps() & SelectionKey.OP_READ) == 0;
+        flush(key);
+        boolean resumed = paused && (key.interestOps() & SelectionKey.OP_READ) != 0;
+        if (resumed && connection.in.position() > 0) {
+            // requests that arrived while paused are already buffered
+            process(key);
+        }
+    }
+
+    // answer the buffered frames there is room for and send the replies,
+    // until the frames run out or the replies back up
+    private void process(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        do {
+            connection.in.flip();
+            int pending = handleFrames(connection);
+            connection.in.compact();
+            if (pending > CacheProtocol.BUFFER_SIZE) {
+                // the next frame is larger than the default buffer
+                connection.in = CacheProtocol.ensureRemaining(connection.in, pending - connection.in.position());
+            } else {
+                connection.in = CacheProtocol.shrink(connection.in);
+            }
+            flush(key);
+        } while (connection.out.position() < CacheProtocol.HIGH_WATER && hasCompleteFrame(connection.in));
+    }
+
+    // the buffer is being written to and its data starts at index 0
+    private static boolean hasCompleteFrame(ByteBuffer in) {
+        return in.position() >= Integer.BYTES && in.position() >= Integer.BYTES + in.getInt(0);
+    }
+
+    // answer complete frames until replies back up; returns the size of an incomplete frame, or 0
+    private int handleFrames(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        while (connection.out.position() < CacheProtocol.HIGH_WATER && in.remaining() >= Integer.BYTES) {
+            int length = in.getInt(in.position());
+            if (length <= 0 || length > CacheProtocol.MAX_FRAME) {
+                throw new IOException("Invalid frame length: " + length);
+            }
+            if (in.remaining() < Integer.BYTES + length) {
+                return Integer.BYTES + length;
+            }
+            int end = in.position() + Integer.BYTES + length;
+            int limit = in.limit();
+            in.position(in.position() + Integer.BYTES);
+            in.limit(end);
+            handleFrame(connection, in);
+            in.limit(limit);
+            in.position(end);
+        }
+        return 0;
+    }
+
+    private void handleFrame(Connection connection, ByteBuffer frame) throws IOException {
+        ByteBuffer out = CacheProtocol.ensureRemaining(connection.out, Integer.BYTES + 1);
+        int start = CacheProtocol.beginFrame(out);
+        out.put(CacheProtocol.STATUS_OK);
+        byte op = frame.get();
+        try {
+            if (op == CacheProtocol.OP_GET) {
+                K key = CacheProtocol.getValue(frame, keyCodec);
+                out = CacheProtocol.putValue(out, valueCodec, cache.get(key));
+                checkReplySize(out, start);
+            } else if (op == CacheProtocol.OP_PUT) {
+                K key = CacheProtocol.getValue(frame, keyCodec);
+                V value = CacheProtocol.getValue(frame, valueCodec);
+                cache.put(key, value);
+            } else if (op == CacheProtocol.OP_MGET) {
+                int count = frame.getInt();
+                out = CacheProtocol.ensureRemaining(out, Integer.BYTES);
+                out.putInt(count);
+                for (int i = 0; i < count; i++) {
+                    K key = CacheProtocol.getValue(frame, keyCodec);
+                    out = CacheProtocol.putValue(out, valueCodec, cache.get(key));
+                    checkReplySize(out, start);
+                }
+            } else {
+                throw new IOException("Unknown opcode: " + op);
+            }
+        } catch (RuntimeException e) {
+            // bad keys or values are reported to the client, the connection stays open
+            out.position(start);
+            out = CacheProtocol.ensureRemaining(out, Integer.BYTES + 1);
+            CacheProtocol.beginFrame(out);
+            out.put(CacheProtocol.STATUS_ERROR);
+            out = CacheProtocol.putValue(out, Codec.STRING, String.valueOf(e.getMessage()));
+        }
+        CacheProtocol.endFrame(out, start);
+        connection.out = out;
+    }
+
+    private static void checkReplySize(ByteBuffer out, int start) throws IOException {
+        if (out.position() - start - Integer.BYTES > CacheProtocol.MAX_FRAME) {
+            throw new IOException("Reply exceeds " + CacheProtocol.MAX_FRAME + " bytes");
+        }
+    }
+
+    private void flush(SelectionKey key) throws IOException {
+        Connection connection = (Connection) key.attachment();
+        connection.out.flip();
+        ((SocketChannel) key.channel()).write(connection.out);
+        connection.out.compact();
+        connection.out = CacheProtocol.shrink(connection.out);
+        int queued = connection.out.position();
+        // stop reading while replies back up, and only ask for writability while some are queued
+        if (queued >= CacheProtocol.HIGH_WATER) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else if (queued > 0) {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // nothing left to do for this connection
+        }
+    }
+
+    // per connection buffers, both kept in write mode between events
+    private static class Connection {
+        ByteBuffer in = ByteBuffer.allocateDirect(CacheProtocol.BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocateDirect(CacheProtocol.BUFFER_SIZE);
+    }
+
+    /**
+     * Serve a {@link Memory} of string keys and byte array values.
+     * Arguments: [port] [capacity] [LRU|LFU|MRU]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        CacheReplacementPolicy policy = args.length > 2
+                ? CacheReplacementPolicy.valueOf(args[2])
+                : CacheReplacementPolicy.LRU;
+        CacheServer<String, byte[]> server = new CacheServer<>(
+                new Memory<>(capacity, policy), Codec.STRING, Codec.BYTES);
+        server.start(new InetSocketAddress(port));
+        System.out.printf("Serving %s cache of %d entries on port %d\n", policy, capacity, server.getPort());
+        server.loop.join();
+        server.close(); // rethrows whatever stopped the loop
+    }
+}
@@ -0,0 +1,66 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converts keys and values to and from the bytes sent by
+ * {@link CacheServer} and {@link CacheClient}.
+ */
+public interface Codec<T> {
+    Codec<String> STRING = new Codec<>() {
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        public String decode(ByteBuffer buffer, int length) {
+            String value;
+            if (buffer.hasArray()) {
+                value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                value = new String(BYTES.decode(buffer, length), StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+    };
+
+    Codec<Integer> INTEGER = new Codec<>() {
+        public byte[] encode(Integer value) {
+            return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+        }
+
+        public Integer decode(ByteBuffer buffer, int length) {
+            if (length != Integer.BYTES) {
+                throw new IllegalArgumentException("Integer must be " + Integer.BYTES + " bytes");
+            }
+            return buffer.getInt();
+        }
+    };
+
+    Codec<byte[]> BYTES = new Codec<>() {
+        public byte[] encode(byte[] value) {
+            return value;
+        }
+
+        public byte[] decode(ByteBuffer buffer, int length) {
+            byte[] value = new byte[length];
+            buffer.get(value);
+            return value;
+        }
+    };
+
+    /**
+     * Encode a non-null value. The returned array must not be modified.
+     *
+     * @param value the value
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decode a value from the next length bytes of the buffer, advancing
+     * its position past them.
+     *
+     * @param buffer the buffer
+     * @param length the number of bytes
+     */
+    T decode(ByteBuffer buffer, int length);
+}
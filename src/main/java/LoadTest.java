@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loopback load test for {@link CacheServer}. Each client thread sends
+ * batches of pipelined GETs (with a PUT after every miss) and records
+ * the round trip of every batch against each request in it.
+ * Arguments: [clients] [seconds] [pipeline depth]
+ */
+public class LoadTest {
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : cores;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int cacheSize = 100_000;
+        int keySpace = 200_000;
+
+        CacheServer<Integer, byte[]> server = new CacheServer<>(
+                new Memory<>(cacheSize, CacheReplacementPolicy.LRU), Codec.INTEGER, Codec.BYTES);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            results.add(pool.submit(client(address, c, depth, keySpace, deadline)));
+        }
+
+        long[][] perClient = new long[clients][];
+        int total = 0;
+        for (int c = 0; c < clients; c++) {
+            perClient[c] = results.get(c).get();
+            total += perClient[c].length;
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        pool.shutdown();
+        server.close();
+
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (long[] client : perClient) {
+            System.arraycopy(client, 0, latencies, offset, client.length);
+            offset += client.length;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("Clients: %d, pipeline depth: %d, cores: %d\n", clients, depth, cores);
+        System.out.printf("Requests: %d in %.2f s\n", total, elapsed);
+        System.out.printf("Throughput: %.0f ops/s (%.0f ops/s per core)\n", total / elapsed, total / elapsed / cores);
+        System.out.printf("Latency p50: %.1f us\n", percentile(latencies, 0.50) / 1e3);
+        System.out.printf("Latency p99: %.1f us\n", percentile(latencies, 0.99) / 1e3);
+    }
+
+    private static Callable<long[]> client(InetSocketAddress address, long seed, int depth, int keySpace,
+                                           long deadline) {
+        return () -> {
+            Random random = new Random(seed);
+            byte[] value = new byte[64];
+            long[] latencies = new long[1 << 16];
+            int count = 0;
+            try (CacheClient<Integer, byte[]> client = new CacheClient<>(address, Codec.INTEGER, Codec.BYTES)) {
+                List<Integer> keys = new ArrayList<>(depth);
+                while (System.nanoTime() < deadline) {
+                    keys.clear();
+                    for (int i = 0; i < depth; i++) {
+                        keys.add(random.nextInt(keySpace));
+                    }
+                    long begin = System.nanoTime();
+                    List<byte[]> values = client.getPipelined(keys);
+                    long took = System.nanoTime() - begin;
+                    for (int i = 0; i < depth; i++) {
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = took;
+                    }
+                    for (int i = 0; i < depth; i++) {
+                        if (values.get(i) == null) {
+                            begin = System.nanoTime();
+                            client.put(keys.get(i), value);
+                            if (count == latencies.length) {
+                                latencies = Arrays.copyOf(latencies, count * 2);
+                            }
+                            latencies[count++] = System.nanoTime() - begin;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Client failed", e);
+            }
+            return Arrays.copyOf(latencies, count);
+        };
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
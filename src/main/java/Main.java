@@ -1,34 +1,89 @@
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Main {
     public static void main(String[] args) {
         int cacheSize = 100;
         int operations = 100000;
-        Random random = new Random();
+        Random random = new Random(42); // fixed so runs can be compared
+
+        // every policy replays the same keys so the hit rates are comparable
+        int[] trace = new int[operations];
+        for (int i = 0; i < operations; i++) {
+            trace[i] = random.nextInt(200); // simulate a range of keys
+        }
 
         // Test LRU Policy
         System.out.println("Testing LRU Policy:");
         Memory<Integer, Integer> lruCache = new Memory<>(cacheSize, CacheReplacementPolicy.LRU);
-        simulateCacheOperations(lruCache, operations, random);
+        simulateCacheOperations(lruCache, trace, random);
 
         // Test MRU Policy
         System.out.println("\nTesting MRU Policy:");
         Memory<Integer, Integer> mruCache = new Memory<>(cacheSize, CacheReplacementPolicy.MRU);
-        simulateCacheOperations(mruCache, operations, random);
+        simulateCacheOperations(mruCache, trace, random);
 
         // Test LFU Policy
         System.out.println("\nTesting LFU Policy:");
         Memory<Integer, Integer> lfuCache = new Memory<>(cacheSize, CacheReplacementPolicy.LFU);
-        simulateCacheOperations(lfuCache, operations, random);
+        simulateCacheOperations(lfuCache, trace, random);
+
+        // Belady OPT needs the whole trace up front, so it only runs offline
+        System.out.println("\nTesting Belady OPT (offline bound):");
+        int optHits = BeladyOptimal.simulate(trace, cacheSize);
+        printStats(operations, optHits, operations - optHits);
+
+        System.out.println("\nHit rate vs OPT bound:");
+        double optRate = (optHits * 100.0) / operations;
+        printComparison(CacheReplacementPolicy.LRU.toString(), lruCache.getHitCount(), operations, optRate);
+        printComparison(CacheReplacementPolicy.MRU.toString(), mruCache.getHitCount(), operations, optRate);
+        printComparison(CacheReplacementPolicy.LFU.toString(), lfuCache.getHitCount(), operations, optRate);
+        printComparison("Belady OPT", optHits, operations, optRate);
+
+        // Sampled approximations keep one int per entry instead of list nodes
+        System.out.println("\nTesting Sampled LRU (5 samples, eviction pool):");
+        SampledMemory<Integer, Integer> sampledLru = new SampledMemory<>(cacheSize, CacheReplacementPolicy.LRU,
+                SampledMemory.DEFAULT_SAMPLES, true, 42);
+        simulateCacheOperations(sampledLru, trace, random);
+
+        System.out.println("\nTesting Sampled LFU (5 samples, eviction pool):");
+        SampledMemory<Integer, Integer> sampledLfu = new SampledMemory<>(cacheSize, CacheReplacementPolicy.LFU,
+                SampledMemory.DEFAULT_SAMPLES, true, 42);
+        simulateCacheOperations(sampledLfu, trace, random);
+
+        System.out.println("\nSampled vs exact:");
+        printSampledComparison(lruCache, sampledLru, operations);
+        printSampledComparison(lfuCache, sampledLfu, operations);
+
+        // Refresh-ahead on a logical clock that advances once per operation, with its
+        // own Random for reloads so the simulation draws the same values as above;
+        // reloads run inline here, a real deployment would pass a thread pool
+        System.out.println("\nTesting LRU with refresh-ahead (every 100 operations):");
+        AtomicLong clock = new AtomicLong();
+        Random reloads = new Random(7);
+        RefreshingCache<Integer, Integer> refreshingCache = new RefreshingCache<>(cacheSize,
+                CacheReplacementPolicy.LRU, 100, key -> reloads.nextInt(1000), Runnable::run, clock::get);
+        simulateCacheOperations(refreshingCache, trace, random, clock);
+        System.out.printf("Refreshes: %d\n", refreshingCache.getRefreshCount());
+        System.out.printf("Refresh Failures: %d\n", refreshingCache.getRefreshFailureCount());
     }
 
-    private static void simulateCacheOperations(Memory<Integer, Integer> cache, int operations, Random random) {
-        for (int i = 0; i < operations; i++) {
-            int key = random.nextInt(200); // simulate a range of keys
+    private static void simulateCacheOperations(Cache<Integer, Integer> cache, int[] trace, Random random) {
+        simulateCacheOperations(cache, trace, random, new AtomicLong());
+    }
+
+    // clock is advanced once per step of the trace
+    private static void simulateCacheOperations(Cache<Integer, Integer> cache, int[] trace, Random random,
+                                                AtomicLong clock) {
+        int hits = 0;
+        for (int key : trace) {
+            clock.incrementAndGet();
             if (random.nextDouble() < 0.8) {
                 // 80% probability of accessing a key
                 if (cache.get(key) == null) {
                     cache.put(key, random.nextInt(1000)); // Simulate a miss and insert the key
+                } else {
+                    hits++;
                 }
             } else {
                 // 20% probability of inserting a new key-value pair
@@ -36,13 +91,16 @@ public class Main {
                     cache.put(key, random.nextInt(1000)); // Count as a miss
                 } else {
                     // The key already exists, so update it and count as a hit
+                    hits++;
                     cache.put(key, random.nextInt(1000));
                 }
             }
         }
 
-        int hits = cache.getHitCount();
-        int misses = cache.getMissCount();
+        printStats(trace.length, hits, trace.length - hits);
+    }
+
+    private static void printStats(int operations, int hits, int misses) {
         double hitRate = (hits * 100.0) / operations;
         double missRate = (misses * 100.0) / operations;
 
@@ -52,4 +110,21 @@ public class Main {
         System.out.printf("Hit Rate: %.2f%%\n", hitRate);
         System.out.printf("Miss Rate: %.2f%%\n", missRate);
     }
-}
\ No newline at end of file
+
+    private static void printComparison(String name, int hits, int operations, double optRate) {
+        double hitRate = (hits * 100.0) / operations;
+        System.out.printf("%-24s %6.2f%%  (%.2f points below OPT)\n", name, hitRate, optRate - hitRate);
+    }
+
+    private static void printSampledComparison(Memory<Integer, Integer> exact, SampledMemory<Integer, Integer> sampled,
+                                               int operations) {
+        double exactRate = (exact.getHitCount() * 100.0) / operations;
+        double sampledRate = (sampled.getHitCount() * 100.0) / operations;
+        long exactBytes = exact.getOverheadBytes();
+        long sampledBytes = sampled.getOverheadBytes();
+        System.out.printf("%-24s hit rate %6.2f%% vs %6.2f%% exact (%+.2f points)\n",
+                exact.getPolicy(), sampledRate, exactRate, sampledRate - exactRate);
+        System.out.printf("%-24s bookkeeping %d bytes vs %d bytes exact (%.0f%% saved)\n",
+                "", sampledBytes, exactBytes, 100.0 - (sampledBytes * 100.0) / exactBytes);
+    }
+}
@@ -1,4 +1,6 @@
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Memory<K, V> implements Cache<K, V>, Iterable<V> {
     private final int capacity;
@@ -144,6 +146,30 @@ public class Memory<K, V> implements Cache<K, V>, Iterable<V> {
         return missCount;
     }
 
+    public CacheReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Rough bytes spent on bookkeeping, assuming compressed (4 byte)
+     * references: a 32 byte node and a 32 byte hash map entry per entry
+     * plus the hash map table. Under LFU each frequency bucket adds a 40
+     * byte tree map entry, its 16 byte Integer key, a 24 byte ArrayList and
+     * its backing array; the arrays are counted at their size (or the
+     * default capacity of 10) without growth slack, so LFU is a lower bound.
+     */
+    public long getOverheadBytes() {
+        int entries = map.size();
+        long tableSlots = Integer.highestOneBit(Math.max(16, (int) (entries / 0.75f) + 1) * 2 - 1);
+        long bytes = entries * 64L + tableSlots * 4;
+        if (frequencyMap != null) {
+            for (ArrayList<Node<K, V>> bucket : frequencyMap.values()) {
+                bytes += 40 + 16 + 24 + 16 + 4L * Math.max(10, bucket.size());
+            }
+        }
+        return bytes;
+    }
+
     // node class for the doubly linked list
     private static class Node<K, V> {
         K key;
@@ -224,28 +250,150 @@ public class Memory<K, V> implements Cache<K, V>, Iterable<V> {
         }
     }
 
+    /**
+     * Iterate over the values in eviction order: the entry that would be
+     * evicted next comes first and the hottest entry comes last. That is
+     * recency order for LRU and MRU and ascending frequency for LFU.
+     */
     @Override
     public Iterator<V> iterator() {
-        return new LRUCacheIterator();
+        return new ValueIterator(nodes(false));
     }
 
-    private class LRUCacheIterator implements Iterator<V> {
-        private Node<K, V> current;
+    /**
+     * A spliterator over the values in the same order as {@link #iterator()}.
+     * It splits off batches as it walks, so a parallel stream over a large
+     * cache spreads the work across threads. The cache must not be modified
+     * while it is being traversed.
+     */
+    @Override
+    public Spliterator<V> spliterator() {
+        return Spliterators.spliterator(iterator(), map.size(), Spliterator.ORDERED);
+    }
+
+    public Stream<V> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Get up to n entries that would be evicted last, hottest first.
+     * Only the returned entries are visited.
+     *
+     * @param n the maximum number of entries
+     */
+    public List<Map.Entry<K, V>> hottest(int n) {
+        return firstEntries(nodes(true), n);
+    }
+
+    /**
+     * Get up to n entries that would be evicted next, coldest first.
+     * Only the returned entries are visited.
+     *
+     * @param n the maximum number of entries
+     */
+    public List<Map.Entry<K, V>> coldest(int n) {
+        return firstEntries(nodes(false), n);
+    }
 
-        public LRUCacheIterator() {
-            this.current = list.head.next;
+    private List<Map.Entry<K, V>> firstEntries(Iterator<Node<K, V>> nodes, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+        List<Map.Entry<K, V>> entries = new ArrayList<>(Math.min(n, map.size()));
+        while (entries.size() < n && nodes.hasNext()) {
+            Node<K, V> node = nodes.next();
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(node.key, node.value));
+        }
+        return entries;
+    }
+
+    private Iterator<Node<K, V>> nodes(boolean hottestFirst) {
+        if (policy == CacheReplacementPolicy.LFU) {
+            return new FrequencyIterator(hottestFirst);
+        }
+        // LRU keeps its coldest entry at the head, MRU at the tail
+        boolean fromHead = (policy == CacheReplacementPolicy.LRU) != hottestFirst;
+        return new LinkedNodeIterator(fromHead);
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private final Iterator<Node<K, V>> nodes;
+
+        ValueIterator(Iterator<Node<K, V>> nodes) {
+            this.nodes = nodes;
         }
 
         @Override
         public boolean hasNext() {
-            return current != null && current != list.tail;
+            return nodes.hasNext();
         }
 
         @Override
         public V next() {
-            V value = current.value;
-            current = current.next;
-            return value;
+            return nodes.next().value;
+        }
+    }
+
+    // walks the doubly linked list in either direction
+    private class LinkedNodeIterator implements Iterator<Node<K, V>> {
+        private final boolean fromHead;
+        private final Node<K, V> end;
+        private Node<K, V> current;
+
+        LinkedNodeIterator(boolean fromHead) {
+            this.fromHead = fromHead;
+            this.current = fromHead ? list.head.next : list.tail.prev;
+            this.end = fromHead ? list.tail : list.head;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null && current != end;
+        }
+
+        @Override
+        public Node<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = current;
+            current = fromHead ? current.next : current.prev;
+            return node;
+        }
+    }
+
+    // walks the frequency buckets, each bucket in eviction order
+    private class FrequencyIterator implements Iterator<Node<K, V>> {
+        private final boolean hottestFirst;
+        private final Iterator<ArrayList<Node<K, V>>> buckets;
+        private ListIterator<Node<K, V>> current;
+
+        FrequencyIterator(boolean hottestFirst) {
+            this.hottestFirst = hottestFirst;
+            this.buckets = hottestFirst
+                    ? frequencyMap.descendingMap().values().iterator()
+                    : frequencyMap.values().iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!currentHasNext() && buckets.hasNext()) {
+                ArrayList<Node<K, V>> bucket = buckets.next();
+                current = bucket.listIterator(hottestFirst ? bucket.size() : 0);
+            }
+            return currentHasNext();
+        }
+
+        private boolean currentHasNext() {
+            return current != null && (hottestFirst ? current.hasPrevious() : current.hasNext());
+        }
+
+        @Override
+        public Node<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return hottestFirst ? current.previous() : current.next();
         }
     }
 }
@@ -0,0 +1,175 @@
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A thread safe {@link Memory} with refresh-after-write. A get on an entry
+ * written longer ago than the refresh interval still returns the current
+ * value immediately, and schedules a reload of that key on the executor.
+ * At most one reload per key is in flight. When it finishes the new value
+ * replaces the old one atomically, without touching the eviction order.
+ * If a reload fails or the loader returns null, the old value is kept,
+ * the failure is counted and the next get tries again.
+ */
+public class RefreshingCache<K, V> implements Cache<K, V> {
+    private final Memory<K, Entry<V>> memory;
+    private final Function<? super K, ? extends V> loader;
+    private final Executor executor;
+    private final long refreshInterval;
+    private final LongSupplier ticker;
+    private final Set<K> reloading = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger refreshCount = new AtomicInteger();
+    private final AtomicInteger refreshFailureCount = new AtomicInteger();
+
+    /**
+     * @param capacity the maximum number of entries
+     * @param policy the replacement policy
+     * @param refreshAfterWrite how old an entry gets before a get reloads it
+     * @param loader computes the fresh value for a key
+     * @param executor runs the reloads
+     */
+    public RefreshingCache(int capacity, CacheReplacementPolicy policy, Duration refreshAfterWrite,
+                           Function<? super K, ? extends V> loader, Executor executor) {
+        this(capacity, policy, refreshAfterWrite.toNanos(), loader, executor, System::nanoTime);
+    }
+
+    // the refresh interval is in the ticker's units
+    RefreshingCache(int capacity, CacheReplacementPolicy policy, long refreshInterval,
+                    Function<? super K, ? extends V> loader, Executor executor, LongSupplier ticker) {
+        if (refreshInterval <= 0) {
+            throw new IllegalArgumentException("Refresh interval must be greater than zero");
+        }
+        if (loader == null || executor == null || ticker == null) {
+            throw new IllegalArgumentException("Loader, executor and ticker cannot be null");
+        }
+        this.memory = new Memory<>(capacity, policy);
+        this.loader = loader;
+        this.executor = executor;
+        this.refreshInterval = refreshInterval;
+        this.ticker = ticker;
+    }
+
+    public V get(K key) {
+        Entry<V> entry;
+        synchronized (memory) {
+            entry = memory.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        Version<V> current = entry.current;
+        if (isStale(current)) {
+            scheduleRefresh(key, entry);
+        }
+        return current.value;
+    }
+
+    private boolean isStale(Version<V> version) {
+        return ticker.getAsLong() - version.writeTime >= refreshInterval;
+    }
+
+    public void put(K key, V value) {
+        // a fresh entry, so a reload still in flight for the old one cannot overwrite it
+        Entry<V> entry = new Entry<>(new Version<>(value, ticker.getAsLong()));
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+    }
+
+    private void scheduleRefresh(K key, Entry<V> entry) {
+        if (!reloading.add(key)) {
+            return; // already being reloaded
+        }
+        if (!isStale(entry.current)) {
+            // a reload finished between our read and claiming the key
+            reloading.remove(key);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    V value = loader.apply(key);
+                    if (value == null) {
+                        // nothing to serve instead, so keep the old value
+                        refreshFailureCount.incrementAndGet();
+                        return;
+                    }
+                    entry.current = new Version<>(value, ticker.getAsLong());
+                    refreshCount.incrementAndGet();
+                } catch (RuntimeException e) {
+                    refreshFailureCount.incrementAndGet();
+                } finally {
+                    reloading.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // keep serving the current value, the next get tries again
+            reloading.remove(key);
+            refreshFailureCount.incrementAndGet();
+        }
+    }
+
+    public int size() {
+        synchronized (memory) {
+            return memory.size();
+        }
+    }
+
+    public boolean isEmpty() {
+        synchronized (memory) {
+            return memory.isEmpty();
+        }
+    }
+
+    public void clear() {
+        synchronized (memory) {
+            memory.clear();
+        }
+        refreshCount.set(0);
+        refreshFailureCount.set(0);
+    }
+
+    public int getHitCount() {
+        synchronized (memory) {
+            return memory.getHitCount();
+        }
+    }
+
+    public int getMissCount() {
+        synchronized (memory) {
+            return memory.getMissCount();
+        }
+    }
+
+    public int getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public int getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    // value and write time swapped together through one volatile reference
+    private static final class Version<V> {
+        final V value;
+        final long writeTime;
+
+        Version(V value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    private static final class Entry<V> {
+        volatile Version<V> current;
+
+        Entry(Version<V> current) {
+            this.current = current;
+        }
+    }
+}
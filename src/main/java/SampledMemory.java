@@ -0,0 +1,316 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Approximate replacement in the style of Redis: instead of keeping every
+ * entry in an exactly ordered structure, each entry carries a single int
+ * (an access tick for LRU, a logarithmic counter for LFU) and eviction
+ * picks the worst of a few randomly sampled entries. An optional eviction
+ * pool keeps the best candidates seen across evictions to get closer to
+ * the exact policy.
+ *
+ * MRU is not supported: {@link Memory}'s MRU evicts the least recent entry,
+ * so there is no single behaviour to approximate.
+ *
+ * Entries live in flat arrays with open addressing, so there is no node
+ * object, no hash map entry and no list pointers per entry.
+ */
+public class SampledMemory<K, V> implements Cache<K, V> {
+    static final int DEFAULT_SAMPLES = 5;
+    static final int POOL_SIZE = 16;
+    // LFU counters saturate at 255, start at LFU_INIT and grow ~logarithmically
+    static final int LFU_INIT = 5;
+    private static final int LFU_MAX = 255;
+    private static final int LFU_LOG_FACTOR = 10;
+
+    private final int capacity;
+    private final CacheReplacementPolicy policy;
+    private final int samples;
+    private final boolean pooled;
+    private final Object[] keys;
+    private final Object[] values;
+    private final int[] stamps;
+    private final int mask;
+    private final int shift;
+    private int size;
+    private int clock;
+    private long seed;
+    private int hitCount;
+    private int missCount;
+
+    // eviction candidates sorted by ascending score, best candidate last
+    private final Object[] poolKeys;
+    private final long[] poolScores;
+    private int poolSize;
+
+    public SampledMemory(int capacity, CacheReplacementPolicy policy) {
+        this(capacity, policy, DEFAULT_SAMPLES, true);
+    }
+
+    /**
+     * @param capacity the maximum number of entries
+     * @param policy the policy to approximate
+     * @param samples how many entries to sample per eviction
+     * @param pooled whether to keep an eviction pool across evictions
+     */
+    public SampledMemory(int capacity, CacheReplacementPolicy policy, int samples, boolean pooled) {
+        this(capacity, policy, samples, pooled, ThreadLocalRandom.current().nextLong());
+    }
+
+    // a fixed seed makes the sampling, and so the evictions, reproducible
+    SampledMemory(int capacity, CacheReplacementPolicy policy, int samples, boolean pooled, long seed) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy cannot be null");
+        }
+        if (policy == CacheReplacementPolicy.MRU) {
+            throw new IllegalArgumentException("Sampled eviction supports LRU and LFU only");
+        }
+        if (capacity >= 3 << 28) {
+            throw new IllegalArgumentException("Capacity is too large");
+        }
+        if (samples <= 0) {
+            throw new IllegalArgumentException("Samples must be greater than zero");
+        }
+        this.capacity = capacity;
+        this.policy = policy;
+        this.samples = samples;
+        this.pooled = pooled;
+        // keep the load factor at or below 0.75 so probes and samples stay short
+        int tableSize = Integer.highestOneBit(Math.max(2, (int) (capacity * 4L / 3 + 1)) * 2 - 1);
+        this.keys = new Object[tableSize];
+        this.values = new Object[tableSize];
+        this.stamps = new int[tableSize];
+        this.mask = tableSize - 1;
+        this.shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+        this.seed = seed | 1; // xorshift must not start at zero
+        this.poolKeys = new Object[pooled ? POOL_SIZE : 0];
+        this.poolScores = new long[pooled ? POOL_SIZE : 0];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null.");
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        touch(slot);
+        return (V) values[slot];
+    }
+
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null.");
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            touch(slot);
+            return;
+        }
+        if (size >= capacity) {
+            removeAt(pickVictim());
+        }
+        slot = home(key);
+        while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        stamps[slot] = policy == CacheReplacementPolicy.LFU ? LFU_INIT : ++clock;
+        size++;
+    }
+
+    private void touch(int slot) {
+        if (policy == CacheReplacementPolicy.LFU) {
+            stamps[slot] = logIncrement(stamps[slot]);
+        } else {
+            stamps[slot] = ++clock;
+        }
+    }
+
+    // the higher the score, the better the entry is as an eviction victim
+    private long score(int slot) {
+        if (policy == CacheReplacementPolicy.LFU) {
+            return LFU_MAX - stamps[slot];
+        }
+        return (clock - stamps[slot]) & 0xFFFFFFFFL; // unsigned idle time, survives clock wrap
+    }
+
+    // probabilistic increment: the higher the counter, the less likely it grows
+    private int logIncrement(int counter) {
+        if (counter == LFU_MAX) {
+            return counter;
+        }
+        int base = Math.max(0, counter - LFU_INIT);
+        double r = (nextRandom() >>> 11) * 0x1.0p-53;
+        return r < 1.0 / (base * LFU_LOG_FACTOR + 1) ? counter + 1 : counter;
+    }
+
+    private int pickVictim() {
+        if (!pooled) {
+            return sampleBest();
+        }
+        for (int i = 0; i < samples; i++) {
+            int slot = randomSlot();
+            offerToPool(keys[slot], score(slot));
+        }
+        while (poolSize > 0) {
+            Object key = poolKeys[--poolSize];
+            long pooledScore = poolScores[poolSize];
+            poolKeys[poolSize] = null;
+            int slot = find(key);
+            // skip entries that were removed or accessed since they were pooled
+            if (slot >= 0 && score(slot) >= pooledScore) {
+                return slot;
+            }
+        }
+        // every pooled candidate went stale
+        return sampleBest();
+    }
+
+    private int sampleBest() {
+        int best = randomSlot();
+        for (int i = 1; i < samples; i++) {
+            int slot = randomSlot();
+            if (score(slot) > score(best)) {
+                best = slot;
+            }
+        }
+        return best;
+    }
+
+    private void offerToPool(Object key, long score) {
+        for (int i = 0; i < poolSize; i++) {
+            if (poolKeys[i].equals(key)) {
+                removeFromPool(i);
+                break;
+            }
+        }
+        if (poolSize == POOL_SIZE) {
+            if (score <= poolScores[0]) {
+                return;
+            }
+            removeFromPool(0);
+        }
+        int i = poolSize;
+        while (i > 0 && poolScores[i - 1] > score) {
+            poolKeys[i] = poolKeys[i - 1];
+            poolScores[i] = poolScores[i - 1];
+            i--;
+        }
+        poolKeys[i] = key;
+        poolScores[i] = score;
+        poolSize++;
+    }
+
+    private void removeFromPool(int index) {
+        poolSize--;
+        System.arraycopy(poolKeys, index + 1, poolKeys, index, poolSize - index);
+        System.arraycopy(poolScores, index + 1, poolScores, index, poolSize - index);
+        poolKeys[poolSize] = null;
+    }
+
+    // uniform over occupied slots; only called when the table is full enough
+    private int randomSlot() {
+        while (true) {
+            int slot = (int) nextRandom() & mask;
+            if (keys[slot] != null) {
+                return slot;
+            }
+        }
+    }
+
+    private long nextRandom() {
+        // xorshift64
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+
+    private int home(Object key) {
+        return (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+
+    private int find(Object key) {
+        int slot = home(key);
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // backward shift deletion keeps linear probing correct without tombstones
+    private void removeAt(int slot) {
+        int hole = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (keys[next] == null) {
+                break;
+            }
+            int home = home(keys[next]);
+            // move the entry back unless its home lies cyclically in (hole, next]
+            boolean stays = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!stays) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                stamps[hole] = stamps[next];
+                hole = next;
+            }
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        stamps[hole] = 0;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        Arrays.fill(stamps, 0);
+        Arrays.fill(poolKeys, null);
+        poolSize = 0;
+        size = 0;
+        clock = 0;
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    public int getHitCount() {
+        return hitCount;
+    }
+
+    public int getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Bytes spent on bookkeeping: one key reference, one value reference
+     * and one int per table slot, assuming compressed (4 byte) references.
+     */
+    public long getOverheadBytes() {
+        return keys.length * 12L;
+    }
+}
@@ -0,0 +1,63 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+class BeladyOptimalTests {
+
+    @Test
+    void testTextbookTrace() {
+        int[] trace = {7, 0, 1, 2, 0, 3, 0, 4, 2, 3, 0, 3, 2, 1, 2, 0, 1, 7, 0, 1};
+
+        // OPT with 3 frames takes 9 misses on this reference string
+        assertEquals(11, BeladyOptimal.simulate(trace, 3));
+    }
+
+    @Test
+    void testCapacityCoversAllKeys() {
+        int[] trace = {5, -3, 5, 1000000, -3, 5, 1000000};
+
+        // only the first access to each distinct key misses
+        assertEquals(4, BeladyOptimal.simulate(trace, 100));
+    }
+
+    @Test
+    void testCapacityOne() {
+        int[] trace = {1, 1, 2, 1, 1};
+
+        assertEquals(2, BeladyOptimal.simulate(trace, 1));
+    }
+
+    @Test
+    void testNextUse() {
+        int[] next = BeladyOptimal.nextUse(new int[]{0, 1, 0, 2, 1}, 3);
+
+        assertArrayEquals(new int[]{2, 4, BeladyOptimal.NEVER, BeladyOptimal.NEVER, BeladyOptimal.NEVER}, next);
+    }
+
+    @Test
+    void testBoundsOnlinePolicies() {
+        Random rand = new Random(42);
+        int[] trace = new int[20_000];
+        for (int i = 0; i < trace.length; i++) {
+            trace[i] = rand.nextInt(300);
+        }
+        int optHits = BeladyOptimal.simulate(trace, 100);
+
+        for (CacheReplacementPolicy policy : CacheReplacementPolicy.values()) {
+            Memory<Integer, Integer> cache = new Memory<>(100, policy);
+            for (int key : trace) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+            assertTrue(cache.getHitCount() <= optHits, policy + " beat the OPT bound");
+        }
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> BeladyOptimal.simulate(new int[]{1}, 0));
+        assertThrows(NullPointerException.class, () -> BeladyOptimal.simulate(null, 1));
+    }
+}
@@ -0,0 +1,346 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class CacheServerTests {
+    private CacheServer<String, String> server;
+    private CacheClient<String, String> client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = new CacheServer<>(new Memory<>(100, CacheReplacementPolicy.LRU), Codec.STRING, Codec.STRING);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        client = connect();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    private CacheClient<String, String> connect() throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        return new CacheClient<>(address, Codec.STRING, Codec.STRING);
+    }
+
+    @Test
+    void testPutAndGet() {
+        client.put("one", "1");
+        client.put("two", null); //null values are allowed
+
+        assertEquals("1", client.get("one"));
+        assertNull(client.get("two"));
+        assertNull(client.get("missing"));
+    }
+
+    @Test
+    void testEvictionOnServer() {
+        for (int i = 0; i < 150; i++) {
+            client.put("key" + i, "value" + i);
+        }
+
+        assertNull(client.get("key0")); //evicted by the server side LRU
+        assertEquals("value149", client.get("key149"));
+    }
+
+    @Test
+    void testMultiGet() {
+        client.put("a", "1");
+        client.put("c", "3");
+
+        assertEquals(Arrays.asList("1", null, "3"), client.getAll(List.of("a", "b", "c")));
+    }
+
+    @Test
+    void testPipelinedGet() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            client.put("key" + i, "value" + i);
+            keys.add("key" + i);
+        }
+
+        List<String> values = client.getPipelined(keys);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value" + i, values.get(i));
+        }
+    }
+
+    @Test
+    void testLargeValue() {
+        String large = "x".repeat(1_000_000); //larger than the initial buffers
+
+        client.put("large", large);
+
+        assertEquals(large, client.get("large"));
+    }
+
+    @Test
+    void testClientsShareCache() throws IOException {
+        try (CacheClient<String, String> other = connect()) {
+            client.put("shared", "yes");
+            assertEquals("yes", other.get("shared"));
+        }
+    }
+
+    @Test
+    void testNullKey() {
+        assertThrows(NullPointerException.class, () -> client.get(null));
+    }
+
+    private Socket rawConnect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static void writeGet(DataOutputStream out, String key) throws IOException {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(1 + Integer.BYTES + bytes.length);
+        out.writeByte(CacheProtocol.OP_GET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writePut(DataOutputStream out, String key, String value) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(1 + Integer.BYTES * 2 + keyBytes.length + valueBytes.length);
+        out.writeByte(CacheProtocol.OP_PUT);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        out.writeInt(valueBytes.length);
+        out.write(valueBytes);
+    }
+
+    // reads one reply frame and returns its status, leaving the body in body
+    private static byte readReply(DataInputStream in, byte[][] body) throws IOException {
+        int length = in.readInt();
+        byte status = in.readByte();
+        body[0] = new byte[length - 1];
+        in.readFully(body[0]);
+        return status;
+    }
+
+    private static String valueOf(byte[] body) {
+        int length = ((body[0] & 0xff) << 24) | ((body[1] & 0xff) << 16) | ((body[2] & 0xff) << 8) | (body[3] & 0xff);
+        return length == CacheProtocol.NULL_LENGTH ? null : new String(body, 4, length, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testErrorReplyKeepsConnection() throws IOException {
+        try (Socket socket = rawConnect()) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            byte[][] body = new byte[1][];
+
+            //a GET with a null (-1 length) key is rejected by the cache
+            out.writeInt(1 + Integer.BYTES);
+            out.writeByte(CacheProtocol.OP_GET);
+            out.writeInt(CacheProtocol.NULL_LENGTH);
+            out.flush();
+            assertEquals(CacheProtocol.STATUS_ERROR, readReply(in, body));
+
+            //the same connection still serves requests
+            client.put("key", "value");
+            writeGet(out, "key");
+            out.flush();
+            assertEquals(CacheProtocol.STATUS_OK, readReply(in, body));
+            assertEquals("value", valueOf(body[0]));
+        }
+    }
+
+    @Test
+    void testPipelinedMixOfPutAndGet() throws IOException {
+        try (Socket socket = rawConnect()) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            byte[][] body = new byte[1][];
+
+            //all four frames go out before any reply is read
+            writePut(out, "k", "v1");
+            writeGet(out, "k");
+            writePut(out, "k", "v2");
+            writeGet(out, "k");
+            out.flush();
+
+            assertEquals(CacheProtocol.STATUS_OK, readReply(in, body));
+            assertEquals(0, body[0].length);
+            assertEquals(CacheProtocol.STATUS_OK, readReply(in, body));
+            assertEquals("v1", valueOf(body[0]));
+            assertEquals(CacheProtocol.STATUS_OK, readReply(in, body));
+            assertEquals(CacheProtocol.STATUS_OK, readReply(in, body));
+            assertEquals("v2", valueOf(body[0]));
+        }
+    }
+
+    @Test
+    void testUnknownOpcodeClosesOnlyThatConnection() throws IOException {
+        client.put("key", "value");
+        try (Socket socket = rawConnect()) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(1);
+            out.writeByte(99);
+            out.flush();
+
+            assertEquals(-1, socket.getInputStream().read());
+        }
+        assertEquals("value", client.get("key"));
+    }
+
+    @Test
+    void testInvalidFrameLengthClosesOnlyThatConnection() throws IOException {
+        client.put("key", "value");
+        try (Socket socket = rawConnect()) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(CacheProtocol.MAX_FRAME + 1);
+            out.flush();
+
+            assertEquals(-1, socket.getInputStream().read());
+        }
+        assertEquals("value", client.get("key"));
+    }
+
+    @Test
+    void testPipelinedErrorDrainsReplies() throws IOException {
+        Memory<String, String> memory = new Memory<>(100, CacheReplacementPolicy.LRU);
+        Cache<String, String> rejecting = new Cache<>() {
+            public String get(String key) {
+                if (key.equals("bad")) {
+                    throw new IllegalArgumentException("bad key");
+                }
+                return memory.get(key);
+            }
+
+            public void put(String key, String value) {
+                memory.put(key, value);
+            }
+        };
+        try (CacheServer<String, String> other = new CacheServer<>(rejecting, Codec.STRING, Codec.STRING)) {
+            other.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), other.getPort());
+            try (CacheClient<String, String> otherClient = new CacheClient<>(address, Codec.STRING, Codec.STRING)) {
+                otherClient.put("a", "1");
+                otherClient.put("c", "3");
+
+                IllegalStateException e = assertThrows(IllegalStateException.class,
+                        () -> otherClient.getPipelined(List.of("a", "bad", "c")));
+                assertTrue(e.getMessage().contains("bad key"));
+
+                //every reply was consumed, so the connection is still in step
+                assertEquals("1", otherClient.get("a"));
+                assertEquals("3", otherClient.get("c"));
+            }
+        }
+    }
+
+    @Test
+    void testOversizedReplyClosesConnection() throws IOException {
+        client.put("large", "x".repeat(1_000_000));
+
+        //twenty copies of a 1 MB value is more than one reply may carry
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keys.add("large");
+        }
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> client.getAll(keys));
+        assertInstanceOf(EOFException.class, e.getCause()); //the server hung up instead of replying
+
+        try (CacheClient<String, String> other = connect()) {
+            assertEquals(1_000_000, other.get("large").length());
+        }
+    }
+
+    @Test
+    void testLargePipelinedBatch() {
+        client.put("k", "v".repeat(16));
+
+        //about 10 MB of requests, more than the socket buffers hold at once
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            keys.add("k");
+        }
+        List<String> values = assertTimeoutPreemptively(Duration.ofSeconds(60), () -> client.getPipelined(keys));
+
+        assertEquals(1_000_000, values.size());
+        assertEquals("v".repeat(16), values.get(999_999));
+        assertEquals("v".repeat(16), client.get("k"));
+    }
+
+    @Test
+    void testUndecodableReplyKeepsClientInStep() throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        try (CacheClient<String, Integer> numbers = new CacheClient<>(address, Codec.STRING, Codec.INTEGER)) {
+            numbers.put("a", 1);
+            numbers.put("c", 3);
+            client.put("b", "abc"); //three bytes, not a valid Integer
+
+            assertThrows(IllegalArgumentException.class, () -> numbers.get("b"));
+            assertEquals(1, numbers.get("a"));
+
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> numbers.getPipelined(List.of("a", "b", "c")));
+            assertTrue(e.getMessage().contains("Integer"));
+
+            //the rest of the batch was drained, so later calls line up
+            assertEquals(3, numbers.get("c"));
+            assertEquals(Arrays.asList(1, 3), numbers.getAll(List.of("a", "c")));
+        }
+    }
+
+    private static long directMemoryUsed() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    void testBackpressureOnUnreadReplies() throws Exception {
+        client.put("large", "x".repeat(1_000_000));
+        System.gc();
+        long before = directMemoryUsed();
+
+        try (Socket socket = rawConnect()) {
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            for (int i = 0; i < 200; i++) {
+                writeGet(out, "large");
+            }
+            out.flush();
+            Thread.sleep(500); //let the server answer as much as it is willing to
+
+            //without backpressure this would be about 200 MB of queued replies
+            long grown = directMemoryUsed() - before;
+            assertTrue(grown < 32L * 1024 * 1024, "server buffered " + grown + " bytes");
+
+            //once the client reads, every reply still arrives in order
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            byte[][] body = new byte[1][];
+            for (int i = 0; i < 200; i++) {
+                assertEquals(CacheProtocol.STATUS_OK, readReply(in, body));
+                assertEquals(Integer.BYTES + 1_000_000, body[0].length);
+            }
+        }
+        assertEquals("x".repeat(1_000_000), client.get("large"));
+    }
+}
@@ -2,6 +2,8 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 class MemoryTests {
@@ -426,4 +428,85 @@ class MemoryTests {
         assertNull(cache.get(3)); // evicted
         assertEquals("four", cache.get(4)); // newly added
     }
-}
\ No newline at end of file
+
+    @Test
+    void testIteratorOrderMRU() {
+        Memory<Integer, String> cache = new Memory<>(3, CacheReplacementPolicy.MRU);
+
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.get(1); //access 1 to make it the most recent
+
+        Iterator<String> iterator = cache.iterator();
+
+        //least recent first
+        assertEquals("two", iterator.next());
+        assertEquals("three", iterator.next());
+        assertEquals("one", iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testIteratorOrderLFU() {
+        Memory<Integer, String> cache = new Memory<>(3, CacheReplacementPolicy.LFU);
+
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.get(1); // access key 1 twice
+        cache.get(1);
+        cache.get(2); // access key 2 once
+
+        Iterator<String> iterator = cache.iterator();
+
+        //lowest frequency first
+        assertEquals("three", iterator.next());
+        assertEquals("two", iterator.next());
+        assertEquals("one", iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    void testHottestAndColdest() {
+        for (CacheReplacementPolicy policy : CacheReplacementPolicy.values()) {
+            Memory<Integer, String> cache = new Memory<>(4, policy);
+
+            cache.put(1, "one");
+            cache.put(2, "two");
+            cache.put(3, "three");
+            cache.put(4, "four");
+            cache.get(2);
+            cache.get(2);
+            cache.get(4);
+
+            List<Map.Entry<Integer, String>> hottest = cache.hottest(2);
+            assertEquals(2, hottest.size(), policy.toString());
+            if (policy == CacheReplacementPolicy.LFU) {
+                assertEquals(2, hottest.get(0).getKey()); //accessed most often
+                assertEquals(4, hottest.get(1).getKey());
+            } else {
+                assertEquals(4, hottest.get(0).getKey(), policy.toString()); //accessed most recently
+                assertEquals(2, hottest.get(1).getKey(), policy.toString());
+            }
+
+            List<Map.Entry<Integer, String>> coldest = cache.coldest(10);
+            assertEquals(4, coldest.size(), policy.toString());
+            assertEquals(1, coldest.get(0).getKey(), policy.toString());
+            assertEquals("one", coldest.get(0).getValue(), policy.toString());
+        }
+    }
+
+    @Test
+    void testParallelStream() {
+        for (CacheReplacementPolicy policy : CacheReplacementPolicy.values()) {
+            Memory<Integer, Integer> cache = new Memory<>(50_000, policy);
+            for (int i = 1; i <= 50_000; i++) {
+                cache.put(i, i);
+            }
+
+            long sum = cache.stream().parallel().mapToLong(Integer::longValue).sum();
+            assertEquals(50_000L * 50_001 / 2, sum, policy.toString());
+        }
+    }
+}
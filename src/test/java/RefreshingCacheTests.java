@@ -0,0 +1,174 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class RefreshingCacheTests {
+    private final AtomicLong clock = new AtomicLong();
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private RefreshingCache<Integer, String> newCache() {
+        return new RefreshingCache<>(3, CacheReplacementPolicy.LRU, 100,
+                key -> key + "-v" + loads.incrementAndGet(), tasks::add, clock::get);
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+
+    @Test
+    void testFreshEntryNotRefreshed() {
+        RefreshingCache<Integer, String> cache = newCache();
+
+        cache.put(1, "one");
+        clock.set(99);
+
+        assertEquals("one", cache.get(1));
+        assertTrue(tasks.isEmpty());
+        assertEquals(0, cache.getRefreshCount());
+    }
+
+    @Test
+    void testStaleEntryServedWhileReloading() {
+        RefreshingCache<Integer, String> cache = newCache();
+
+        cache.put(1, "one");
+        clock.set(100);
+
+        assertEquals("one", cache.get(1)); //old value right away
+        assertEquals(1, tasks.size());
+
+        runTasks();
+        assertEquals("1-v1", cache.get(1)); //swapped in after the reload
+        assertEquals(1, cache.getRefreshCount());
+        assertEquals(2, cache.getHitCount());
+        assertTrue(tasks.isEmpty()); //the reload reset the write time
+    }
+
+    @Test
+    void testReloadsDeduplicatedPerKey() {
+        RefreshingCache<Integer, String> cache = newCache();
+
+        cache.put(1, "one");
+        cache.put(2, "two");
+        clock.set(200);
+
+        cache.get(1);
+        cache.get(1);
+        cache.get(1);
+        cache.get(2);
+
+        assertEquals(2, tasks.size()); //one per key
+        runTasks();
+        assertEquals(2, cache.getRefreshCount());
+    }
+
+    @Test
+    void testFailedReloadKeepsValue() {
+        RefreshingCache<Integer, String> cache = new RefreshingCache<>(3, CacheReplacementPolicy.LRU, 100,
+                key -> {
+                    throw new IllegalStateException("backend down");
+                }, tasks::add, clock::get);
+
+        cache.put(1, "one");
+        clock.set(100);
+        cache.get(1);
+        runTasks();
+
+        assertEquals("one", cache.get(1)); //still served
+        assertEquals(1, cache.getRefreshFailureCount());
+        assertEquals(1, tasks.size()); //and retried
+    }
+
+    @Test
+    void testPutWinsOverInFlightReload() {
+        RefreshingCache<Integer, String> cache = newCache();
+
+        cache.put(1, "one");
+        clock.set(100);
+        cache.get(1); //schedules a reload
+        cache.put(1, "newer");
+        runTasks();
+
+        assertEquals("newer", cache.get(1));
+    }
+
+    @Test
+    void testNullReloadKeepsValue() {
+        RefreshingCache<Integer, String> cache = new RefreshingCache<>(3, CacheReplacementPolicy.LRU, 100,
+                key -> null, tasks::add, clock::get);
+
+        cache.put(1, "one");
+        clock.set(100);
+        cache.get(1);
+        runTasks();
+
+        assertEquals("one", cache.get(1)); //not replaced by null
+        assertEquals(0, cache.getRefreshCount());
+        assertEquals(1, cache.getRefreshFailureCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    void testNoSecondReloadAfterOneFinishes() {
+        boolean[] finishReloads = {false};
+        RefreshingCache<Integer, String> cache = new RefreshingCache<>(3, CacheReplacementPolicy.LRU, 100,
+                key -> key + "-v" + loads.incrementAndGet(), tasks::add, () -> {
+                    if (finishReloads[0]) {
+                        //the reload completes after the get read the stale value but before it checks the key
+                        finishReloads[0] = false;
+                        runTasks();
+                    }
+                    return clock.get();
+                });
+
+        cache.put(1, "one");
+        clock.set(100);
+        cache.get(1); //schedules the first reload
+        finishReloads[0] = true;
+
+        assertEquals("one", cache.get(1)); //still saw the stale value
+        assertTrue(tasks.isEmpty()); //but did not reload a value that is now fresh
+        assertEquals(1, loads.get());
+        assertEquals("1-v1", cache.get(1));
+    }
+
+    @Test
+    void testMissDoesNotLoad() {
+        RefreshingCache<Integer, String> cache = newCache();
+
+        assertNull(cache.get(42));
+        assertEquals(1, cache.getMissCount());
+        assertTrue(tasks.isEmpty());
+    }
+
+    @Test
+    void testBackgroundExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch loaded = new CountDownLatch(1);
+        RefreshingCache<Integer, String> cache = new RefreshingCache<>(3, CacheReplacementPolicy.LRU, 100,
+                key -> {
+                    loaded.countDown();
+                    return "reloaded";
+                }, executor, clock::get);
+
+        cache.put(1, "one");
+        clock.set(100);
+        assertEquals("one", cache.get(1));
+
+        assertTrue(loaded.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals("reloaded", cache.get(1));
+    }
+}
@@ -0,0 +1,149 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+class SampledMemoryTests {
+
+    @Test
+    void testBasicPutAndGet() {
+        SampledMemory<Integer, String> cache = new SampledMemory<>(3, CacheReplacementPolicy.LRU, 5, true, 1);
+
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.put(3, "three");
+        cache.put(2, "updated-two");
+
+        assertEquals("one", cache.get(1));
+        assertEquals("updated-two", cache.get(2));
+        assertEquals("three", cache.get(3));
+        assertNull(cache.get(4));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void testCapacityOne() {
+        for (CacheReplacementPolicy policy : new CacheReplacementPolicy[]{CacheReplacementPolicy.LRU, CacheReplacementPolicy.LFU}) {
+            SampledMemory<Integer, String> cache = new SampledMemory<>(1, policy, 5, true, 1);
+
+            cache.put(1, "one");
+            cache.put(2, "two"); //evicts key 1
+
+            assertNull(cache.get(1), policy.toString());
+            assertEquals("two", cache.get(2), policy.toString());
+            assertEquals(1, cache.size(), policy.toString());
+        }
+    }
+
+    @Test
+    void testChurnKeepsEntriesReachable() {
+        for (boolean pooled : new boolean[]{true, false}) {
+            SampledMemory<Integer, Integer> cache = new SampledMemory<>(500, CacheReplacementPolicy.LRU, 5, pooled, 7);
+            Map<Integer, Integer> written = new HashMap<>();
+            Random rand = new Random(7);
+
+            for (int i = 0; i < 50_000; i++) {
+                int key = rand.nextInt(2_000);
+                cache.put(key, i);
+                written.put(key, i);
+            }
+
+            //every resident key must be found with its latest value
+            int found = 0;
+            for (Map.Entry<Integer, Integer> entry : written.entrySet()) {
+                Integer value = cache.get(entry.getKey());
+                if (value != null) {
+                    assertEquals(entry.getValue(), value);
+                    found++;
+                }
+            }
+            assertEquals(500, cache.size());
+            assertEquals(500, found);
+        }
+    }
+
+    @Test
+    void testHotKeysSurviveLRU() {
+        SampledMemory<Integer, Integer> cache = new SampledMemory<>(100, CacheReplacementPolicy.LRU, 5, true, 3);
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.get(i % 10); //keep keys 0-9 recent
+            cache.put(i % 10, i);
+            cache.put(1_000 + i, i); //stream of one-off keys
+        }
+
+        for (int key = 0; key < 10; key++) {
+            assertNotNull(cache.get(key));
+        }
+    }
+
+    @Test
+    void testFrequentKeysSurviveLFU() {
+        SampledMemory<Integer, Integer> cache = new SampledMemory<>(100, CacheReplacementPolicy.LFU, 5, true, 3);
+
+        for (int key = 0; key < 10; key++) {
+            cache.put(key, key);
+            for (int i = 0; i < 50; i++) {
+                cache.get(key);
+            }
+        }
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(1_000 + i, i); //stream of one-off keys
+        }
+
+        for (int key = 0; key < 10; key++) {
+            assertNotNull(cache.get(key));
+        }
+    }
+
+    @Test
+    void testHitRateCloseToExactLRU() {
+        Random rand = new Random(42);
+        Memory<Integer, Integer> exact = new Memory<>(1_000, CacheReplacementPolicy.LRU);
+        SampledMemory<Integer, Integer> sampled = new SampledMemory<>(1_000, CacheReplacementPolicy.LRU, 5, true, 42);
+
+        for (int i = 0; i < 200_000; i++) {
+            //skewed keys: small ones are far more popular
+            int key = (int) (Math.pow(rand.nextDouble(), 3) * 10_000);
+            if (exact.get(key) == null) {
+                exact.put(key, key);
+            }
+            if (sampled.get(key) == null) {
+                sampled.put(key, key);
+            }
+        }
+
+        double gap = (exact.getHitCount() - sampled.getHitCount()) / 200_000.0;
+        assertTrue(Math.abs(gap) < 0.05, "hit rate gap too large: " + gap);
+        assertTrue(sampled.getOverheadBytes() < exact.getOverheadBytes());
+    }
+
+    @Test
+    void testClear() {
+        SampledMemory<Integer, String> cache = new SampledMemory<>(3, CacheReplacementPolicy.LFU, 5, true, 1);
+
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.get(1);
+        cache.clear();
+
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.getHitCount());
+        assertNull(cache.get(1));
+
+        cache.put(4, "four");
+        assertEquals("four", cache.get(4));
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new SampledMemory<>(0, CacheReplacementPolicy.LRU));
+        assertThrows(IllegalArgumentException.class, () -> new SampledMemory<>(1, null));
+        assertThrows(IllegalArgumentException.class, () -> new SampledMemory<>(1, CacheReplacementPolicy.MRU));
+        assertThrows(IllegalArgumentException.class, () -> new SampledMemory<>(1, CacheReplacementPolicy.LRU, 0, true));
+        assertThrows(NullPointerException.class, () -> new SampledMemory<Integer, Integer>(1, CacheReplacementPolicy.LRU).get(null));
+    }
+}